@@ -0,0 +1,99 @@
+/**
+ * Controls how many oranges a plant's fetchers may bring in, based on how quickly the rest of the plant is keeping up.
+ * The controller keeps a window on the number of oranges in the plant that have not yet been processed. The window grows
+ * slowly while the fetched list stays at or below its target depth and is cut in half when the list grows past it
+ * (additive increase, multiplicative decrease). The window is cut at most once per feedback interval, the time it takes
+ * an orange to pass through every stage of the plant, so that the plant has time to respond to each cut. Oranges that
+ * are not admitted are shed according to the shed policy.
+ */
+public class AdmissionController {
+    /**
+     * What a fetcher does with an orange that was not admitted into the plant.
+     */
+    public enum ShedPolicy {
+        Defer, // Wait before trying again, leaving the orange unfetched
+        Drop   // Fetch the orange anyway, then throw it away
+    }
+
+    private static final double MIN_WINDOW = 1;
+    private static final double MAX_WINDOW = 64;
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final long FEEDBACK_INTERVAL = feedbackInterval();
+
+    private final int targetDepth;
+    private final ShedPolicy shedPolicy;
+    private double window;
+    private long lastDecrease;
+
+    /**
+     * Constructor for AdmissionController objects.
+     *
+     * @param targetDepth int         number of oranges the fetched list may hold before the window is cut
+     * @param shedPolicy  ShedPolicy  what fetchers do with oranges that are not admitted
+     */
+    public AdmissionController(int targetDepth, ShedPolicy shedPolicy) {
+        if (targetDepth < 0) {
+            throw new IllegalArgumentException("Target depth must not be negative");
+        }
+        this.targetDepth = targetDepth;
+        this.shedPolicy = shedPolicy;
+        this.window = Math.max(MIN_WINDOW, targetDepth);
+        this.lastDecrease = System.nanoTime() - FEEDBACK_INTERVAL;
+    }
+
+    /**
+     * Decides whether another orange may be brought into the plant, and adjusts the window based on the current depth of
+     * the fetched list.
+     *
+     * @param fetchedDepth int  number of oranges waiting in the fetched list
+     * @param inFlight     int  number of oranges in the plant that have not yet been processed
+     * @return boolean whether the orange is admitted (true if it may be fetched; false if it should be shed)
+     */
+    public synchronized boolean tryAdmit(int fetchedDepth, int inFlight) {
+        if (fetchedDepth > targetDepth) {
+            long now = System.nanoTime();
+            if (now - lastDecrease >= FEEDBACK_INTERVAL) {
+                window = Math.max(MIN_WINDOW, window * DECREASE_FACTOR);
+                lastDecrease = now;
+            }
+            return false;
+        }
+        if (inFlight >= window) {
+            return false;
+        }
+        // Grow by roughly one orange for every window's worth of admitted oranges
+        window = Math.min(MAX_WINDOW, window + 1 / window);
+        return true;
+    }
+
+    /**
+     * Returns what fetchers do with oranges that are not admitted.
+     *
+     * @return ShedPolicy policy for oranges that are not admitted
+     */
+    public ShedPolicy getShedPolicy() {
+        return shedPolicy;
+    }
+
+    /**
+     * Returns the current limit on the number of unprocessed oranges in the plant.
+     *
+     * @return int  current admission window
+     */
+    public synchronized int getWindow() {
+        return (int) window;
+    }
+
+    /**
+     * Returns the time it takes an orange to pass through every stage of a plant.
+     *
+     * @return long  nanoseconds taken to complete every state of an orange
+     */
+    private static long feedbackInterval() {
+        long millis = 0;
+        for (Orange.State state : Orange.State.values()) {
+            millis += state.timeToComplete;
+        }
+        return millis * 1_000_000;
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Rate at which oranges arrive at a plant under open-loop load. Oranges arrive on schedule regardless of whether the plant
+ * is keeping up, so the time each orange was meant to arrive can be used to measure its latency.
+ */
+public interface ArrivalSchedule {
+    /**
+     * Returns the number of oranges arriving per second at the given point in the run.
+     *
+     * @param elapsed long  nanoseconds since the first orange arrived
+     * @return double  arrival rate in oranges per second
+     */
+    double rateAt(long elapsed);
+
+    /**
+     * Returns the time the next orange should arrive, given the time the previous orange was meant to arrive. Every orange
+     * arrives at least a nanosecond after the one before it, and arrivals too far away to represent are put off forever.
+     *
+     * @param previous long  nanoseconds since the first orange arrived at which the previous orange was meant to arrive
+     * @return long  nanoseconds since the first orange arrived at which the next orange should arrive, or Long.MAX_VALUE
+     *               if it would not arrive within the range of a long
+     */
+    default long nextArrival(long previous) {
+        long interval = Math.max(1, (long) (1_000_000_000 / rateAt(previous)));
+        if (interval > Long.MAX_VALUE - previous) {
+            return Long.MAX_VALUE;
+        }
+        return previous + interval;
+    }
+
+    /**
+     * Creates a schedule in which oranges arrive at a fixed rate.
+     *
+     * @param rate double  oranges per second
+     * @return ArrivalSchedule constant-rate schedule
+     */
+    static ArrivalSchedule constant(double rate) {
+        checkRate(rate);
+        return elapsed -> rate;
+    }
+
+    /**
+     * Creates a schedule in which the arrival rate changes linearly from one rate to another, then stays at the second.
+     *
+     * @param fromRate double  oranges per second at the start of the run
+     * @param toRate   double  oranges per second at the end of the ramp
+     * @param duration long    milliseconds over which the rate changes
+     * @return ArrivalSchedule ramping schedule
+     */
+    static ArrivalSchedule ramp(double fromRate, double toRate, long duration) {
+        checkRate(fromRate);
+        checkRate(toRate);
+        if (duration <= 0) {
+            throw new IllegalArgumentException("Ramp duration must be positive");
+        }
+        long durationNanos = duration * 1_000_000;
+        return elapsed -> fromRate + (toRate - fromRate) * Math.min(1.0, (double) elapsed / durationNanos);
+    }
+
+    /**
+     * Creates a schedule in which oranges arrive at a base rate, with a burst at a higher rate at the start of every
+     * period.
+     *
+     * @param baseRate    double  oranges per second between bursts
+     * @param burstRate   double  oranges per second during a burst
+     * @param period      long    milliseconds from the start of one burst to the start of the next
+     * @param burstLength long    milliseconds each burst lasts
+     * @return ArrivalSchedule bursting schedule
+     */
+    static ArrivalSchedule burst(double baseRate, double burstRate, long period, long burstLength) {
+        checkRate(baseRate);
+        checkRate(burstRate);
+        if (period <= 0 || burstLength < 0 || burstLength > period) {
+            throw new IllegalArgumentException("Burst length must be between 0 and a positive period");
+        }
+        long periodNanos = period * 1_000_000;
+        long burstNanos = burstLength * 1_000_000;
+        return elapsed -> elapsed % periodNanos < burstNanos ? burstRate : baseRate;
+    }
+
+    /**
+     * Creates a schedule from a description of the form 'constant:rate', 'ramp:fromRate:toRate:duration', or
+     * 'burst:baseRate:burstRate:period:burstLength', with rates in oranges per second and times in milliseconds.
+     *
+     * @param description String  description of the schedule
+     * @return ArrivalSchedule the described schedule
+     */
+    static ArrivalSchedule parse(String description) {
+        String[] parts = description.split(":");
+        try {
+            switch (parts[0]) {
+                case "constant":
+                    if (parts.length == 2) {
+                        return constant(Double.parseDouble(parts[1]));
+                    }
+                    break;
+                case "ramp":
+                    if (parts.length == 4) {
+                        return ramp(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]), Long.parseLong(parts[3]));
+                    }
+                    break;
+                case "burst":
+                    if (parts.length == 5) {
+                        return burst(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]),
+                                Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+                    }
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid arrival schedule: " + description, e);
+        }
+        throw new IllegalArgumentException("Invalid arrival schedule: " + description);
+    }
+
+    /**
+     * Checks that an arrival rate is positive.
+     *
+     * @param rate double  oranges per second
+     */
+    private static void checkRate(double rate) {
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException("Arrival rate must be positive");
+        }
+    }
+}
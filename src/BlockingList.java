@@ -8,23 +8,43 @@ import java.util.LinkedList;
  */
 public class BlockingList {
     private final LinkedList<Orange> orangeList = new LinkedList<>();
-    private final Mutex lock = new Mutex();
+    private final Mutex lock;
+    private final String name;
 
     public BlockingList() {
+        this("orangeList");
     }
 
     /**
-     * Adds an orange to the list. Only one thread may access this method at a time.
+     * Constructor for BlockingList objects with a name identifying the list in Flight Recorder events.
+     *
+     * @param name String  name of the list
+     */
+    public BlockingList(String name) {
+        this.name = name;
+        this.lock = new Mutex(name + ".lock");
+    }
+
+    /**
+     * Adds an orange to the list. Only one thread may access the list at a time.
      *
      * @param orange Orange orange to be added to the list
      */
-    public synchronized void add(Orange orange) {
-        lock.acquire();
-        try {
-            orangeList.add(orange);
-        } finally {
-            lock.release();
+    public void add(Orange orange) {
+        // Begin the event before entering the list, so that its duration includes any wait for another thread
+        QueueHandoffEvent event = new QueueHandoffEvent();
+        event.begin();
+        int depth;
+        synchronized (this) {
+            lock.acquire();
+            try {
+                orangeList.add(orange);
+                depth = orangeList.size();
+            } finally {
+                lock.release();
+            }
         }
+        commitHandoff(event, "add", depth);
     }
 
     /**
@@ -32,17 +52,41 @@ public class BlockingList {
      *
      * @return Orange  first orange in the list, which has now been removed
      */
-    public synchronized Orange remove() {
-        lock.acquire();
+    public Orange remove() {
+        QueueHandoffEvent event = new QueueHandoffEvent();
+        event.begin();
         Orange firstOrange;
-        try {
-            firstOrange = orangeList.remove();
-        } finally {
-            lock.release();
+        int depth;
+        synchronized (this) {
+            lock.acquire();
+            try {
+                firstOrange = orangeList.remove();
+                depth = orangeList.size();
+            } finally {
+                lock.release();
+            }
         }
+        commitHandoff(event, "remove", depth);
         return firstOrange;
     }
 
+    /**
+     * Records a handoff event for this list if the event is enabled and past its threshold.
+     *
+     * @param event     QueueHandoffEvent  event begun before waiting for the list
+     * @param operation String             the operation performed on the list
+     * @param depth     int                number of oranges left in the list after the operation
+     */
+    private void commitHandoff(QueueHandoffEvent event, String operation, int depth) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.queue = name;
+            event.operation = operation;
+            event.depth = depth;
+            event.commit();
+        }
+    }
+
     /**
      * Returns the number of oranges in the list.
      *
@@ -0,0 +1,147 @@
+import java.util.NoSuchElementException;
+
+/**
+ * List of orange IDs meant to be shared between several threads, allowing only one thread to make changes at a time.
+ * The IDs are held in a growable ring buffer of ints, avoiding the per-node overhead of a linked list of Orange objects.
+ */
+public class IdBlockingList {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final Mutex lock;
+    private final String name;
+    private int[] ids;
+    private int head;
+    private int size;
+
+    public IdBlockingList() {
+        this("idList");
+    }
+
+    /**
+     * Constructor for IdBlockingList objects with a name identifying the list in Flight Recorder events.
+     *
+     * @param name String  name of the list
+     */
+    public IdBlockingList(String name) {
+        this(name, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for IdBlockingList objects with room for the given number of IDs before the list must grow.
+     *
+     * @param name            String  name of the list
+     * @param initialCapacity int     number of IDs the list can hold before growing
+     */
+    public IdBlockingList(String name, int initialCapacity) {
+        this.name = name;
+        this.lock = new Mutex(name + ".lock");
+        ids = new int[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Adds an orange ID to the end of the list. Only one thread may access the list at a time.
+     *
+     * @param id int  ID of the orange to be added to the list
+     */
+    public void add(int id) {
+        // Begin the event before entering the list, so that its duration includes any wait for another thread
+        QueueHandoffEvent event = new QueueHandoffEvent();
+        event.begin();
+        int depth;
+        synchronized (this) {
+            lock.acquire();
+            try {
+                if (size == ids.length) {
+                    grow();
+                }
+                ids[(head + size) % ids.length] = id;
+                size++;
+                depth = size;
+            } finally {
+                lock.release();
+            }
+        }
+        commitHandoff(event, "add", depth);
+    }
+
+    /**
+     * Removes and returns the first orange ID in the list.
+     *
+     * @return int  ID of the first orange in the list, which has now been removed
+     */
+    public int remove() {
+        QueueHandoffEvent event = new QueueHandoffEvent();
+        event.begin();
+        int firstId;
+        int depth;
+        synchronized (this) {
+            lock.acquire();
+            try {
+                if (size == 0) {
+                    throw new NoSuchElementException();
+                }
+                firstId = ids[head];
+                head = (head + 1) % ids.length;
+                size--;
+                depth = size;
+            } finally {
+                lock.release();
+            }
+        }
+        commitHandoff(event, "remove", depth);
+        return firstId;
+    }
+
+    /**
+     * Records a handoff event for this list if the event is enabled and past its threshold.
+     *
+     * @param event     QueueHandoffEvent  event begun before waiting for the list
+     * @param operation String             the operation performed on the list
+     * @param depth     int                number of orange IDs left in the list after the operation
+     */
+    private void commitHandoff(QueueHandoffEvent event, String operation, int depth) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.queue = name;
+            event.operation = operation;
+            event.depth = depth;
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the number of orange IDs in the list.
+     *
+     * @return int  number of orange IDs in the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Doubles the capacity of the ring buffer, moving the IDs to the front of the new buffer.
+     */
+    private void grow() {
+        int[] newIds = new int[ids.length * 2];
+        for (int i = 0; i < size; i++) {
+            newIds[i] = ids[(head + i) % ids.length];
+        }
+        ids = newIds;
+        head = 0;
+    }
+
+    /**
+     * Displays the list of orange IDs in a String format.
+     *
+     * @return String list of orange IDs in String format
+     */
+    public synchronized String toString() {
+        StringBuilder retStr = new StringBuilder();
+        retStr.append("[");
+        for (int i = 0; i < size; i++) {
+            retStr.append(ids[(head + i) % ids.length]).append(", ");
+        }
+        retStr.append("]");
+        return retStr.toString();
+    }
+}
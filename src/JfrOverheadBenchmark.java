@@ -0,0 +1,249 @@
+import java.time.Duration;
+import java.util.LinkedList;
+
+import jdk.jfr.Recording;
+
+/**
+ * Measures the cost of the Flight Recorder events emitted by Mutex, BlockingList, and Orange. Each operation is timed with
+ * no recording running (the events are disabled), with a recording running at the events' default thresholds, and with
+ * a recording capturing every event, and is compared against a copy of the same code without any events. Since
+ * Orange.runProcess sleeps for far longer than its event takes, the stage event is measured around the state change
+ * alone, exactly as runProcess emits it. The number of operations per round may be given as the first argument.
+ */
+public class JfrOverheadBenchmark {
+    private static final int DEFAULT_NUM_OPS = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int numOps = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUM_OPS;
+
+        double bareMutex = best(() -> runBareMutex(numOps), numOps);
+        double bareList = best(() -> runBareList(numOps), numOps);
+        double bareStage = best(() -> runBareStage(numOps), numOps);
+        report("Mutex, no events", bareMutex, bareMutex);
+        report("BlockingList, no events", bareList, bareList);
+        report("Orange stage, no events", bareStage, bareStage);
+        measure("no recording", numOps, bareMutex, bareList, bareStage);
+
+        try (Recording recording = new Recording()) {
+            recording.enable(MutexWaitEvent.class);
+            recording.enable(QueueHandoffEvent.class);
+            recording.enable(OrangeStageEvent.class);
+            recording.start();
+            measure("default thresholds", numOps, bareMutex, bareList, bareStage);
+        }
+
+        try (Recording recording = new Recording()) {
+            recording.enable(MutexWaitEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(QueueHandoffEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(OrangeStageEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            measure("every event", numOps, bareMutex, bareList, bareStage);
+        }
+    }
+
+    /**
+     * Times the instrumented operations under the current recording settings, against their event-free copies.
+     *
+     * @param setting   String  description of the recording settings
+     * @param numOps    int     number of operations per round
+     * @param bareMutex double  nanoseconds per operation of the event-free mutex
+     * @param bareList  double  nanoseconds per operation of the event-free list
+     * @param bareStage double  nanoseconds per operation of the event-free state change
+     */
+    private static void measure(String setting, int numOps, double bareMutex, double bareList, double bareStage) {
+        report("Mutex, " + setting, best(() -> runMutex(numOps), numOps), bareMutex);
+        report("BlockingList, " + setting, best(() -> runList(numOps), numOps), bareList);
+        report("Orange stage, " + setting, best(() -> runStage(numOps), numOps), bareStage);
+    }
+
+    /**
+     * Runs a task several times, returning the fastest time per operation.
+     *
+     * @param task   Runnable  task performing the operations
+     * @param numOps int       number of operations the task performs
+     * @return double  fastest number of nanoseconds per operation
+     */
+    private static double best(Runnable task, int numOps) {
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        return (double) bestNanos / numOps;
+    }
+
+    /**
+     * Displays the time per operation of a single configuration and its overhead relative to a baseline.
+     *
+     * @param name     String  name of the configuration
+     * @param nanos    double  nanoseconds per operation
+     * @param baseline double  nanoseconds per operation of the baseline configuration
+     */
+    private static void report(String name, double nanos, double baseline) {
+        System.out.printf("%-38s %8.1f ns/op  %+6.1f ns/op%n", name, nanos, nanos - baseline);
+    }
+
+    /**
+     * Acquires and releases the event-free copy of Mutex.
+     *
+     * @param numOps int  number of times to acquire and release the lock
+     */
+    private static void runBareMutex(int numOps) {
+        BareMutex lock = new BareMutex();
+        for (int i = 0; i < numOps; i++) {
+            lock.acquire();
+            lock.release();
+        }
+    }
+
+    /**
+     * Acquires and releases a Mutex, which may emit a wait event each time.
+     *
+     * @param numOps int  number of times to acquire and release the lock
+     */
+    private static void runMutex(int numOps) {
+        Mutex lock = new Mutex("benchmark");
+        for (int i = 0; i < numOps; i++) {
+            lock.acquire();
+            lock.release();
+        }
+    }
+
+    /**
+     * Adds an orange to and removes it from the event-free copy of BlockingList.
+     *
+     * @param numOps int  number of times to add and remove the orange
+     */
+    private static void runBareList(int numOps) {
+        BareBlockingList list = new BareBlockingList();
+        Orange orange = new Orange(Orange.State.Fetched);
+        for (int i = 0; i < numOps; i++) {
+            list.add(orange);
+            list.remove();
+        }
+    }
+
+    /**
+     * Adds an orange to and removes it from a BlockingList, which may emit a handoff event for each operation.
+     *
+     * @param numOps int  number of times to add and remove the orange
+     */
+    private static void runList(int numOps) {
+        BlockingList list = new BlockingList("benchmark");
+        Orange orange = new Orange(Orange.State.Fetched);
+        for (int i = 0; i < numOps; i++) {
+            list.add(orange);
+            list.remove();
+        }
+    }
+
+    /**
+     * Steps through the orange states without emitting any events.
+     *
+     * @param numOps int  number of state changes
+     */
+    private static void runBareStage(int numOps) {
+        Orange.State state = Orange.State.Fetched;
+        for (int i = 0; i < numOps; i++) {
+            Orange.State nextState = state.getNext();
+            state = nextState == Orange.State.Processed ? Orange.State.Fetched : nextState;
+        }
+        sink(state);
+    }
+
+    /**
+     * Steps through the orange states, wrapping each state change in a stage event.
+     *
+     * @param numOps int  number of state changes
+     */
+    private static void runStage(int numOps) {
+        Orange.State state = Orange.State.Fetched;
+        for (int i = 0; i < numOps; i++) {
+            // Same instrumentation as Orange.runProcess, without the sleep
+            OrangeStageEvent event = new OrangeStageEvent();
+            event.begin();
+            Orange.State nextState = state.getNext();
+            event.end();
+            if (event.shouldCommit()) {
+                event.fromState = state.name();
+                event.toState = nextState.name();
+                event.commit();
+            }
+            state = nextState == Orange.State.Processed ? Orange.State.Fetched : nextState;
+        }
+        sink(state);
+    }
+
+    /**
+     * Keeps the result of a loop alive, so the loop cannot be optimized away.
+     *
+     * @param state State  final state reached by the loop
+     */
+    private static void sink(Orange.State state) {
+        if (state == null) {
+            System.out.println("Unreachable");
+        }
+    }
+
+    /**
+     * Copy of Mutex without Flight Recorder events, used as the baseline.
+     */
+    private static class BareMutex {
+        private boolean locked = false;
+
+        synchronized void acquire() {
+            boolean interrupted = false;
+            while (locked) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            locked = true;
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized void release() {
+            if (!locked) {
+                throw new IllegalStateException("Attempting to release a non-acquired lock");
+            }
+            locked = false;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Copy of BlockingList without Flight Recorder events, used as the baseline.
+     */
+    private static class BareBlockingList {
+        private final LinkedList<Orange> orangeList = new LinkedList<>();
+        private final BareMutex lock = new BareMutex();
+
+        void add(Orange orange) {
+            synchronized (this) {
+                lock.acquire();
+                try {
+                    orangeList.add(orange);
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+
+        Orange remove() {
+            synchronized (this) {
+                lock.acquire();
+                try {
+                    return orangeList.remove();
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+}
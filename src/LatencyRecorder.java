@@ -0,0 +1,108 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Collects the latencies of oranges under open-loop load, measured from the time each orange was meant to arrive, and
+ * reports their percentiles. Oranges that arrive but are not processed before the plant stops are not left out: when
+ * the plant stops, each is recorded as having taken at least as long as it spent in the plant. These censored latencies
+ * are counted separately, since the true latencies can only be longer. The recorder is thread-safe, so the fetchers,
+ * processors, and the thread stopping the plant may all use it at once.
+ */
+public class LatencyRecorder {
+    private final Set<Long> unfinishedArrivals = new HashSet<>();
+    private long[] latencies = new long[1024];
+    private int count;
+    private int censoredCount;
+
+    /**
+     * Notes that an orange has arrived at the plant, whether or not it has been delivered to the workers yet.
+     *
+     * @param arrivalTime long  value of System.nanoTime() when the orange was meant to arrive
+     */
+    public synchronized void arrived(long arrivalTime) {
+        unfinishedArrivals.add(arrivalTime);
+    }
+
+    /**
+     * Records the latency of an orange that has finished processing.
+     *
+     * @param arrivalTime    long  value of System.nanoTime() when the orange was meant to arrive
+     * @param completionTime long  value of System.nanoTime() when the orange finished processing
+     */
+    public synchronized void finished(long arrivalTime, long completionTime) {
+        // An orange finishing after the plant stopped has already been recorded as unfinished
+        if (unfinishedArrivals.remove(arrivalTime)) {
+            add(completionTime - arrivalTime);
+        }
+    }
+
+    /**
+     * Records every orange that arrived but has not finished processing as having taken at least until the plant
+     * stopped. Oranges meant to arrive after the plant stopped are discarded.
+     *
+     * @param stopTime long  value of System.nanoTime() when the plant was told to stop
+     */
+    public synchronized void stopped(long stopTime) {
+        for (long arrivalTime : unfinishedArrivals) {
+            if (arrivalTime <= stopTime) {
+                add(stopTime - arrivalTime);
+                censoredCount++;
+            }
+        }
+        unfinishedArrivals.clear();
+    }
+
+    /**
+     * Displays the recorded latency percentiles in milliseconds, along with how many of the latencies were censored.
+     *
+     * @return String latency percentiles in String format
+     */
+    public synchronized String toString() {
+        long[] sorted = sortedLatencies();
+        return String.format("n=%d (%d unfinished at stop, as lower bounds) p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f ms",
+                count, censoredCount, percentile(sorted, 50) / 1e6, percentile(sorted, 90) / 1e6,
+                percentile(sorted, 99) / 1e6, percentile(sorted, 99.9) / 1e6, percentile(sorted, 100) / 1e6);
+    }
+
+    /**
+     * Adds a latency to the recorded latencies.
+     *
+     * @param latency long  latency in nanoseconds
+     */
+    private void add(long latency) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latency;
+    }
+
+    /**
+     * Returns a sorted copy of the recorded latencies.
+     *
+     * @return long[] recorded latencies in ascending order
+     */
+    private long[] sortedLatencies() {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Returns the value below which the given percentage of a sorted array's values fall.
+     *
+     * @param sorted     long[]  values in ascending order
+     * @param percentile double  percentage between 0 and 100
+     * @return long  value at the percentile, or 0 if the array is empty
+     */
+    private static long percentile(long[] sorted, double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+}
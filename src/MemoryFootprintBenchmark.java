@@ -0,0 +1,75 @@
+/**
+ * Compares the heap used to hold a large number of queued oranges as Orange objects in a BlockingList against the heap
+ * used to hold them as IDs in an OrangeStore and IdBlockingList. The number of oranges may be given as the first
+ * argument.
+ */
+public class MemoryFootprintBenchmark {
+    private static final int DEFAULT_NUM_ORANGES = 1_000_000;
+
+    public static void main(String[] args) {
+        int numOranges = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUM_ORANGES;
+        System.out.println("Queueing " + numOranges + " oranges...\n");
+
+        // Object layout: one Orange and one list node per orange
+        long before = usedHeap();
+        long start = System.nanoTime();
+        BlockingList orangeList = new BlockingList();
+        for (int i = 0; i < numOranges; i++) {
+            orangeList.add(new Orange(Orange.State.Fetched));
+        }
+        long objectTime = System.nanoTime() - start;
+        long objectBytes = usedHeap() - before;
+        System.out.println("Queued " + orangeList.size() + " Orange objects");
+        orangeList = null;
+
+        // Compact layout: primitive arrays indexed by orange ID
+        before = usedHeap();
+        start = System.nanoTime();
+        OrangeStore store = new OrangeStore(numOranges);
+        IdBlockingList idList = new IdBlockingList("benchmark", numOranges);
+        for (int i = 0; i < numOranges; i++) {
+            idList.add(store.allocate());
+        }
+        long compactTime = System.nanoTime() - start;
+        long compactBytes = usedHeap() - before;
+        System.out.println("Queued " + idList.size() + " orange IDs in a store of " + store.capacity());
+        System.out.println(" ");
+
+        report("BlockingList<Orange>", objectBytes, objectTime, numOranges);
+        report("OrangeStore + IdBlockingList", compactBytes, compactTime, numOranges);
+        if (compactBytes > 0) {
+            System.out.printf("Compact layout uses %.1fx less heap%n", (double) objectBytes / compactBytes);
+        }
+    }
+
+    /**
+     * Displays the heap usage and fill time of a single layout.
+     *
+     * @param name       String  name of the layout
+     * @param bytes      long    heap bytes retained by the layout
+     * @param nanos      long    nanoseconds taken to fill the layout
+     * @param numOranges int     number of oranges held by the layout
+     */
+    private static void report(String name, long bytes, long nanos, int numOranges) {
+        System.out.printf("%-30s %,14d bytes  %6.1f bytes/orange  %,8d ms to fill%n",
+                name, bytes, (double) bytes / numOranges, nanos / 1_000_000);
+    }
+
+    /**
+     * Returns the number of bytes in use on the heap after requesting garbage collection.
+     *
+     * @return long  number of bytes in use on the heap
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                System.err.println("Benchmark interrupted");
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
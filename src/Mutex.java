@@ -1,23 +1,131 @@
+import java.util.function.BooleanSupplier;
+
 /**
  * Lock to be used for shared data types. Only threads having acquired the lock may access locked data types.
  *
  * @author Ryan Johnson
  */
 public class Mutex {
+    private final String name;
     private boolean locked = false;
+    private long releases = 0;
+
+    public Mutex() {
+        this("mutex");
+    }
+
+    /**
+     * Constructor for Mutex objects with a name identifying the lock in Flight Recorder events.
+     *
+     * @param name String  name of the lock
+     */
+    public Mutex(String name) {
+        this.name = name;
+    }
 
     /**
-     * Signals a desire to obtain possession of the lock. Access to the lock is blocked until the lock is available.
+     * Signals a desire to obtain possession of the lock. Access to the lock is blocked until the lock is available. If
+     * the thread is interrupted while waiting, it keeps waiting and its interrupt status is restored once the lock is
+     * acquired.
      */
     public synchronized void acquire() {
+        boolean interrupted = false;
+        MutexWaitEvent event = new MutexWaitEvent();
+        event.begin();
         while (locked) {
             try {
                 wait();
-            } catch (Exception e) {
-                throw new IllegalStateException("Trying to wait");
+            } catch (InterruptedException e) {
+                interrupted = true;
             }
         }
         locked = true;
+        commitWait(event);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Signals a desire to obtain possession of the lock. Access to the lock is blocked until the lock is available, or
+     * until the thread is interrupted, in which case the lock is not acquired.
+     *
+     * @throws InterruptedException if the thread is interrupted before or while waiting for the lock
+     */
+    public synchronized void acquireInterruptibly() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        MutexWaitEvent event = new MutexWaitEvent();
+        event.begin();
+        while (locked) {
+            wait();
+        }
+        locked = true;
+        commitWait(event);
+    }
+
+    /**
+     * Releases the lock and waits until the given condition holds, re-acquiring the lock before returning. The condition
+     * is checked while holding the lock, both before waiting and whenever the lock is released or signalAll is called,
+     * so a thread can sleep until another thread changes the data the lock guards. If the thread is interrupted while
+     * waiting, the lock is still re-acquired before the exception is thrown.
+     *
+     * @param condition BooleanSupplier  condition to wait for, checked while holding the lock
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized void await(BooleanSupplier condition) throws InterruptedException {
+        if (!locked) {
+            throw new IllegalStateException("Attempting to wait on a non-acquired lock");
+        }
+        while (!condition.getAsBoolean()) {
+            locked = false;
+            notifyAll();
+            // Only a release by another thread or a signal can change the condition, so other waiters are ignored
+            long seenReleases = releases;
+            InterruptedException interrupted = null;
+            try {
+                while (releases == seenReleases) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                interrupted = e;
+            }
+            // Take the lock back even if interrupted, since the caller still releases it afterwards
+            while (locked) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = e;
+                }
+            }
+            locked = true;
+            if (interrupted != null) {
+                throw interrupted;
+            }
+        }
+    }
+
+    /**
+     * Wakes every thread waiting in await, so that each checks its condition again. Used when the condition depends on
+     * something other than the data the lock guards.
+     */
+    public synchronized void signalAll() {
+        releases++;
+        notifyAll();
+    }
+
+    /**
+     * Records a wait event for this lock if the event is enabled and past its threshold.
+     *
+     * @param event MutexWaitEvent  event begun before waiting for the lock
+     */
+    private void commitWait(MutexWaitEvent event) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.lock = name;
+            event.commit();
+        }
     }
 
     /**
@@ -28,6 +136,7 @@ public class Mutex {
             throw new IllegalStateException("Attempting to release a non-acquired lock");
         }
         locked = false;
+        releases++;
         notifyAll();
     }
 }
\ No newline at end of file
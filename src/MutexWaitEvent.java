@@ -0,0 +1,22 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event covering the time a thread spends waiting to acquire a Mutex. The lock's name identifies the
+ * plant and the list or counter it guards.
+ */
+@Name("juicebottler.MutexWait")
+@Label("Mutex Wait")
+@Description("Time spent waiting to acquire a mutex")
+@Category({"Juice Bottler", "Lock"})
+@Enabled(true)
+@Threshold("10 ms")
+public class MutexWaitEvent extends Event {
+    @Label("Lock")
+    String lock;
+}
@@ -37,7 +37,22 @@ public class Orange {
      */
     public Orange() {
         state = State.Fetched;
-        doWork();
+        try {
+            doWork();
+        } catch (InterruptedException e) {
+            // Leave the interrupt for the fetcher to notice once the orange is handed over
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Constructor for an Orange object already in the given state. No work is simulated, so the orange is available
+     * immediately.
+     *
+     * @param state State  state the orange starts in
+     */
+    Orange(State state) {
+        this.state = state;
     }
 
     /**
@@ -50,26 +65,35 @@ public class Orange {
     }
 
     /**
-     * Moves the orange to the next state.
+     * Moves the orange to the next state. If interrupted, the work is abandoned and the orange stays in its current state.
+     *
+     * @throws InterruptedException if the thread is interrupted while doing the work
      */
-    public void runProcess() {
+    public void runProcess() throws InterruptedException {
         // Don't attempt to process an already completed orange
         if (state == State.Processed) {
             throw new IllegalStateException("This orange has already been processed");
         }
+        OrangeStageEvent event = new OrangeStageEvent();
+        event.begin();
         doWork();
-        state = state.getNext();
+        State nextState = state.getNext();
+        event.end();
+        if (event.shouldCommit()) {
+            event.fromState = state.name();
+            event.toState = nextState.name();
+            event.commit();
+        }
+        state = nextState;
     }
 
     /**
      * Puts the thread to sleep for the time it takes to complete the current task.
+     *
+     * @throws InterruptedException if the thread is interrupted while sleeping
      */
-    private void doWork() {
+    private void doWork() throws InterruptedException {
         // Sleep for the amount of time necessary to do the work
-        try {
-            Thread.sleep(state.timeToComplete);
-        } catch (InterruptedException e) {
-            System.err.println("Incomplete orange processing, juice may be bad");
-        }
+        Thread.sleep(state.timeToComplete);
     }
 }
@@ -0,0 +1,27 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event covering the work done to move an orange from one state to the next. Only transitions taking
+ * longer than the slowest stage's normal time are recorded by default. The event thread identifies the plant and job.
+ */
+@Name("juicebottler.OrangeStage")
+@Label("Orange Stage Transition")
+@Description("Work done to move an orange to its next state")
+@Category({"Juice Bottler", "Orange"})
+@Enabled(true)
+@Threshold("50 ms")
+@StackTrace(false)
+public class OrangeStageEvent extends Event {
+    @Label("From State")
+    String fromState;
+
+    @Label("To State")
+    String toState;
+}
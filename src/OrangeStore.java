@@ -0,0 +1,177 @@
+import java.util.Arrays;
+
+/**
+ * Compact store for large numbers of in-flight oranges. Rather than allocating an Orange object per orange, each orange
+ * is identified by an int ID, and its state is held in a primitive array. IDs of fully processed oranges may be
+ * released and are reused by later oranges.
+ */
+public class OrangeStore {
+    /**
+     * ID returned when the store has no room for another orange.
+     */
+    public static final int NO_ORANGE = -1;
+
+    private static final Orange.State[] STATES = Orange.State.values();
+    private static final byte FREE = -1;
+
+    private final byte[] states;
+    private final int[] freeIds;
+    private int numFree;
+    private int nextId;
+
+    /**
+     * Constructor for OrangeStore objects. Space for every orange is allocated up front.
+     *
+     * @param capacity int  maximum number of oranges that may be in the store at once
+     */
+    public OrangeStore(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        states = new byte[capacity];
+        Arrays.fill(states, FREE);
+        freeIds = new int[capacity];
+    }
+
+    /**
+     * Adds a new orange to the store in the 'Fetched' state. No work is simulated.
+     *
+     * @return int  ID of the new orange
+     */
+    public int allocate() {
+        int id = tryAllocate();
+        if (id == NO_ORANGE) {
+            throw new IllegalStateException("Orange store is full");
+        }
+        return id;
+    }
+
+    /**
+     * Adds a new orange to the store in the 'Fetched' state if there is room for it. No work is simulated.
+     *
+     * @return int  ID of the new orange, or NO_ORANGE if the store is full
+     */
+    public synchronized int tryAllocate() {
+        int id;
+        if (numFree > 0) {
+            id = freeIds[--numFree];
+        } else if (nextId < states.length) {
+            id = nextId++;
+        } else {
+            return NO_ORANGE;
+        }
+        states[id] = (byte) Orange.State.Fetched.ordinal();
+        return id;
+    }
+
+    /**
+     * Fetches a new orange, simulating the work of fetching it as an Orange object would. No work is done if the store is
+     * full. If interrupted, the orange is removed from the store again.
+     *
+     * @return int  ID of the fetched orange, or NO_ORANGE if the store is full
+     * @throws InterruptedException if the thread is interrupted while doing the work
+     */
+    public int fetch() throws InterruptedException {
+        int id = tryAllocate();
+        if (id != NO_ORANGE) {
+            try {
+                doWork(Orange.State.Fetched);
+            } catch (InterruptedException e) {
+                release(id);
+                throw e;
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Removes an orange from the store, allowing its ID to be reused.
+     *
+     * @param id int  ID of the orange to be removed
+     */
+    public synchronized void release(int id) {
+        checkId(id);
+        states[id] = FREE;
+        freeIds[numFree++] = id;
+    }
+
+    /**
+     * Returns the number of oranges currently in the store.
+     *
+     * @return int  number of allocated oranges that have not been released
+     */
+    public synchronized int size() {
+        return nextId - numFree;
+    }
+
+    /**
+     * Returns the current state of an orange.
+     *
+     * @param id int  ID of the orange
+     * @return State current state of the orange
+     */
+    public Orange.State getState(int id) {
+        checkId(id);
+        return STATES[states[id]];
+    }
+
+    /**
+     * Moves an orange to the next state. Only the worker currently holding the orange's ID may call this method. If
+     * interrupted, the work is abandoned and the orange stays in its current state.
+     *
+     * @param id int  ID of the orange to be processed
+     * @throws InterruptedException if the thread is interrupted while doing the work
+     */
+    public void runProcess(int id) throws InterruptedException {
+        Orange.State state = getState(id);
+        // Don't attempt to process an already completed orange
+        if (state == Orange.State.Processed) {
+            throw new IllegalStateException("This orange has already been processed");
+        }
+        OrangeStageEvent event = new OrangeStageEvent();
+        event.begin();
+        doWork(state);
+        Orange.State nextState = state.getNext();
+        event.end();
+        if (event.shouldCommit()) {
+            event.fromState = state.name();
+            event.toState = nextState.name();
+            event.commit();
+        }
+        states[id] = (byte) nextState.ordinal();
+    }
+
+    /**
+     * Returns the maximum number of oranges that may be in the store at once.
+     *
+     * @return int  capacity of the store
+     */
+    public int capacity() {
+        return states.length;
+    }
+
+    /**
+     * Checks that an ID refers to an orange currently in this store.
+     *
+     * @param id int  ID to be checked
+     */
+    private void checkId(int id) {
+        if (id < 0 || id >= states.length) {
+            throw new IndexOutOfBoundsException("Invalid orange ID: " + id);
+        }
+        if (states[id] == FREE) {
+            throw new IllegalStateException("Orange ID is not in use: " + id);
+        }
+    }
+
+    /**
+     * Puts the thread to sleep for the time it takes to complete the given task.
+     *
+     * @param state State  state whose work is being done
+     * @throws InterruptedException if the thread is interrupted while sleeping
+     */
+    private static void doWork(Orange.State state) throws InterruptedException {
+        // Sleep for the amount of time necessary to do the work
+        Thread.sleep(state.timeToComplete);
+    }
+}
@@ -2,7 +2,11 @@
  * Represents an orange-processing plant. A plant contains several workers, which accomplish different tasks necessary
  * for the processing of an orange. There are 5 different kinds of worker: fetchers, peelers, squeezers, bottlers, and
  * processors. At least one of every type of worker needs to be created to process any oranges. Upon termination, the plant
- * waits for the worker threads to finish before shutting down.
+ * waits for the worker threads to finish before shutting down. A plant may also be stopped immediately, in which case the
+ * workers are interrupted and abandon the oranges they are working on. Under open-loop load, the fetchers deliver
+ * oranges on an arrival schedule instead, and the latency of every arriving orange is recorded, with oranges unfinished
+ * when the plant stops recorded as lower bounds. A plant may also keep its oranges in a compact OrangeStore, passing
+ * orange IDs between the workers rather than Orange objects.
  *
  * @author Ryan Johnson
  */
@@ -21,21 +25,34 @@ public class Plant {
     private final Worker[] bottlers = new Worker[NUM_BOTTLERS];
     private final Worker[] processors = new Worker[NUM_PROCESSORS];
 
-    private volatile BlockingList fetchedOranges = new BlockingList();
-    private volatile BlockingList peeledOranges = new BlockingList();
-    private volatile BlockingList squeezedOranges = new BlockingList();
-    private volatile BlockingList bottledOranges = new BlockingList();
-
-    private final Mutex fetchedListLock = new Mutex();
-    private final Mutex peeledListLock = new Mutex();
-    private final Mutex squeezedListLock = new Mutex();
-    private final Mutex bottledListLock = new Mutex();
-    private final Mutex orangesProvidedLock = new Mutex();
-    private final Mutex orangesProcessedLock = new Mutex();
-
-    private int orangesProvided;
-    private int orangesProcessed;
+    private volatile BlockingList fetchedOranges;
+    private volatile BlockingList peeledOranges;
+    private volatile BlockingList squeezedOranges;
+    private volatile BlockingList bottledOranges;
+
+    private final OrangeStore orangeStore;
+    private final IdBlockingList fetchedIds;
+    private final IdBlockingList peeledIds;
+    private final IdBlockingList squeezedIds;
+    private final IdBlockingList bottledIds;
+
+    private final Mutex fetchedListLock;
+    private final Mutex peeledListLock;
+    private final Mutex squeezedListLock;
+    private final Mutex bottledListLock;
+    private final Mutex orangesProvidedLock;
+    private final Mutex orangesProcessedLock;
+    private final Mutex orangesShedLock;
+
+    private final AdmissionController admissionController;
+    private final ArrivalSchedule arrivalSchedule;
+    private final LatencyRecorder latencyRecorder;
+
+    private volatile int orangesProvided;
+    private volatile int orangesProcessed;
+    private volatile int orangesShed;
     private volatile boolean timeToWork;
+    private volatile long stopTime;
 
     /**
      * Constructor for Plant objects. Creates each of the worker threads, which will be started at a later point.
@@ -43,10 +60,81 @@ public class Plant {
      * @param threadNum int  the ID number assigned to the plant
      */
     Plant(int threadNum) {
+        this(threadNum, null);
+    }
+
+    /**
+     * Constructor for Plant objects whose fetchers only bring in the oranges admitted by an admission controller.
+     *
+     * @param threadNum           int                  the ID number assigned to the plant
+     * @param admissionController AdmissionController  controller deciding which oranges are fetched, or null to fetch
+     *                                                 oranges as fast as possible
+     */
+    Plant(int threadNum, AdmissionController admissionController) {
+        this(threadNum, admissionController, null);
+    }
+
+    /**
+     * Constructor for Plant objects whose fetchers deliver oranges on an arrival schedule, regardless of whether the rest
+     * of the plant is keeping up. Oranges arrive already fetched, and the admission controller is not consulted.
+     *
+     * @param threadNum           int                  the ID number assigned to the plant
+     * @param admissionController AdmissionController  controller deciding which oranges are fetched, or null to fetch
+     *                                                 oranges as fast as possible
+     * @param arrivalSchedule     ArrivalSchedule      schedule on which oranges arrive, or null to fetch oranges on demand
+     */
+    Plant(int threadNum, AdmissionController admissionController, ArrivalSchedule arrivalSchedule) {
+        this(threadNum, admissionController, arrivalSchedule, null);
+    }
+
+    /**
+     * Constructor for Plant objects that may keep their oranges in a compact store. The compact store cannot be used
+     * together with an arrival schedule.
+     *
+     * @param threadNum           int                  the ID number assigned to the plant
+     * @param admissionController AdmissionController  controller deciding which oranges are fetched, or null to fetch
+     *                                                 oranges as fast as possible
+     * @param arrivalSchedule     ArrivalSchedule      schedule on which oranges arrive, or null to fetch oranges on demand
+     * @param orangeStore         OrangeStore          store holding the plant's oranges, or null to use Orange objects
+     */
+    Plant(int threadNum, AdmissionController admissionController, ArrivalSchedule arrivalSchedule, OrangeStore orangeStore) {
+        if (arrivalSchedule != null && orangeStore != null) {
+            throw new IllegalArgumentException("Open-loop load is not supported with a compact orange store");
+        }
         orangesProvided = 0;
         orangesProcessed = 0;
+        orangesShed = 0;
 
         this.plantNum = threadNum;
+        this.admissionController = admissionController;
+        this.arrivalSchedule = arrivalSchedule;
+        this.latencyRecorder = arrivalSchedule != null ? new LatencyRecorder() : null;
+
+        // Name the lists and locks after the plant so that Flight Recorder events show where oranges are queued
+        fetchedListLock = new Mutex(String.format("Plant%s.fetchedListLock", plantNum));
+        peeledListLock = new Mutex(String.format("Plant%s.peeledListLock", plantNum));
+        squeezedListLock = new Mutex(String.format("Plant%s.squeezedListLock", plantNum));
+        bottledListLock = new Mutex(String.format("Plant%s.bottledListLock", plantNum));
+        orangesProvidedLock = new Mutex(String.format("Plant%s.orangesProvidedLock", plantNum));
+        orangesProcessedLock = new Mutex(String.format("Plant%s.orangesProcessedLock", plantNum));
+        orangesShedLock = new Mutex(String.format("Plant%s.orangesShedLock", plantNum));
+        fetchedOranges = new BlockingList(String.format("Plant%s.fetched", plantNum));
+        peeledOranges = new BlockingList(String.format("Plant%s.peeled", plantNum));
+        squeezedOranges = new BlockingList(String.format("Plant%s.squeezed", plantNum));
+        bottledOranges = new BlockingList(String.format("Plant%s.bottled", plantNum));
+
+        this.orangeStore = orangeStore;
+        if (orangeStore != null) {
+            fetchedIds = new IdBlockingList(String.format("Plant%s.fetchedIds", plantNum));
+            peeledIds = new IdBlockingList(String.format("Plant%s.peeledIds", plantNum));
+            squeezedIds = new IdBlockingList(String.format("Plant%s.squeezedIds", plantNum));
+            bottledIds = new IdBlockingList(String.format("Plant%s.bottledIds", plantNum));
+        } else {
+            fetchedIds = null;
+            peeledIds = null;
+            squeezedIds = null;
+            bottledIds = null;
+        }
 
         // Create a separate thread for each individual worker in a plant
         for (int i = 0; i < fetchers.length; i++) {
@@ -91,10 +179,73 @@ public class Plant {
     }
 
     /**
-     * Sets the timeToWork boolean to false, effectively stopping the worker threads.
+     * Sets the timeToWork boolean to false, effectively stopping the worker threads, and notes when the plant was told to
+     * stop. Workers waiting for an orange are woken so that they notice.
      */
     public void stopPlant() {
+        if (timeToWork) {
+            stopTime = System.nanoTime();
+        }
         timeToWork = false;
+        fetchedListLock.signalAll();
+        peeledListLock.signalAll();
+        squeezedListLock.signalAll();
+        bottledListLock.signalAll();
+    }
+
+    /**
+     * Stops the worker threads immediately by interrupting them, rather than letting them finish their current task. Any
+     * oranges the workers were working on are wasted.
+     */
+    public void stopPlantNow() {
+        stopPlant();
+        for (Worker worker : getWorkers()) {
+            worker.getThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits up to the given number of milliseconds for the worker threads to stop. The workers stop in parallel, so all of
+     * them share a single deadline. A timeout of zero only checks whether the workers have already stopped.
+     *
+     * @param timeout long  maximum number of milliseconds to wait for the workers to stop
+     * @return boolean whether every worker stopped (true if all workers stopped; false if the timeout was reached)
+     */
+    public boolean waitToStop(long timeout) {
+        // Saturate rather than overflow, so that very long timeouts wait as long as possible
+        long timeoutNanos = timeout > Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE : timeout * 1_000_000;
+        long start = System.nanoTime();
+        try {
+            for (Worker worker : getWorkers()) {
+                long remaining = timeoutNanos - (System.nanoTime() - start);
+                if (remaining > 0) {
+                    worker.getThread().join(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                }
+                if (worker.getThread().isAlive()) {
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns every worker in the plant.
+     *
+     * @return Worker[] the plant's fetchers, peelers, squeezers, bottlers, and processors
+     */
+    private Worker[] getWorkers() {
+        Worker[] workers = new Worker[NUM_FETCHERS + NUM_PEELERS + NUM_SQUEEZERS + NUM_BOTTLERS + NUM_PROCESSORS];
+        int i = 0;
+        for (Worker[] group : new Worker[][]{fetchers, peelers, squeezers, bottlers, processors}) {
+            for (Worker worker : group) {
+                workers[i++] = worker;
+            }
+        }
+        return workers;
     }
 
     /**
@@ -158,6 +309,26 @@ public class Plant {
         this.orangesProcessed = orangesProcessed;
     }
 
+    /**
+     * Returns the number of oranges that were turned away by the admission controller rather than brought into the plant,
+     * whether they were deferred or dropped.
+     *
+     * @return int number of oranges shed by the plant
+     */
+    public int getShedOranges() {
+        return orangesShed;
+    }
+
+    /**
+     * Sets the number of oranges that were turned away by the admission controller rather than brought into the plant,
+     * whether they were deferred or dropped.
+     *
+     * @param orangesShed int number of oranges shed by the plant
+     */
+    public void setShedOranges(int orangesShed) {
+        this.orangesShed = orangesShed;
+    }
+
     /**
      * Returns the number of bottles the plant has produced. Several oranges are required to fill a single bottle.
      *
@@ -249,6 +420,55 @@ public class Plant {
         this.bottledOranges = bottledOranges;
     }
 
+    /**
+     * Returns the compact store holding the plant's oranges.
+     *
+     * @return OrangeStore store holding the plant's oranges, or null if the plant uses Orange objects
+     */
+    public OrangeStore getOrangeStore() {
+        return orangeStore;
+    }
+
+    /**
+     * Returns the list of IDs of oranges that have been brought into the plant, but have not yet been peeled. Only used
+     * with a compact orange store.
+     *
+     * @return IdBlockingList list of IDs of fetched oranges, or null if the plant uses Orange objects
+     */
+    public IdBlockingList getFetchedIds() {
+        return fetchedIds;
+    }
+
+    /**
+     * Returns the list of IDs of oranges that have been fetched and peeled, but have not yet been squeezed. Only used with
+     * a compact orange store.
+     *
+     * @return IdBlockingList list of IDs of peeled oranges, or null if the plant uses Orange objects
+     */
+    public IdBlockingList getPeeledIds() {
+        return peeledIds;
+    }
+
+    /**
+     * Returns the list of IDs of oranges that have been squeezed, but have not yet been bottled. Only used with a compact
+     * orange store.
+     *
+     * @return IdBlockingList list of IDs of squeezed oranges, or null if the plant uses Orange objects
+     */
+    public IdBlockingList getSqueezedIds() {
+        return squeezedIds;
+    }
+
+    /**
+     * Returns the list of IDs of oranges that have been bottled, but have not yet been processed. Only used with a
+     * compact orange store.
+     *
+     * @return IdBlockingList list of IDs of bottled oranges, or null if the plant uses Orange objects
+     */
+    public IdBlockingList getBottledIds() {
+        return bottledIds;
+    }
+
     /**
      * Returns whether the workers should continue processing oranges.
      *
@@ -258,6 +478,43 @@ public class Plant {
         return timeToWork;
     }
 
+    /**
+     * Returns the controller deciding which oranges the fetchers bring into the plant.
+     *
+     * @return AdmissionController controller for the fetchers, or null if oranges are fetched as fast as possible
+     */
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    /**
+     * Returns the schedule on which oranges arrive at the plant.
+     *
+     * @return ArrivalSchedule schedule on which oranges arrive, or null if oranges are fetched on demand
+     */
+    public ArrivalSchedule getArrivalSchedule() {
+        return arrivalSchedule;
+    }
+
+    /**
+     * Returns the recorder for the latencies of oranges arriving under open-loop load, including oranges still unfinished
+     * when the plant stops.
+     *
+     * @return LatencyRecorder recorder for arriving oranges' latencies, or null if oranges are fetched on demand
+     */
+    public LatencyRecorder getLatencyRecorder() {
+        return latencyRecorder;
+    }
+
+    /**
+     * Returns the time at which the plant was told to stop.
+     *
+     * @return long  value of System.nanoTime() when the plant was first told to stop, or 0 if it has not been stopped
+     */
+    public long getStopTime() {
+        return stopTime;
+    }
+
     /**
      * Returns the ID number for the plant.
      *
@@ -320,4 +577,13 @@ public class Plant {
     public Mutex getOrangesProcessedLock() {
         return orangesProcessedLock;
     }
+
+    /**
+     * Returns the lock for the shared integer stating the number of oranges shed by the plant.
+     *
+     * @return Mutex lock for the shared integer stating the number of oranges shed by the plant
+     */
+    public Mutex getOrangesShedLock() {
+        return orangesShedLock;
+    }
 }
\ No newline at end of file
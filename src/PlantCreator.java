@@ -2,33 +2,70 @@
  * This class is used for creating, starting, and ending the orange-processing plants. After being started,
  * each of the created plants will run for a designated amount of time before being stopped. Data is displayed upon
  * plant termination, including the total number of oranges provided & processed, the number of bottled produced, and
- * the number of oranges wasted.
+ * the number of oranges wasted and shed. The plants' fetchers are throttled by an admission controller, which may be set
+ * with the juice.admission system property to 'defer' (the default), 'drop', or 'off'. Setting the juice.load system
+ * property to an arrival schedule (see ArrivalSchedule.parse) runs the plants under open-loop load instead, and reports
+ * each plant's latency percentiles. Setting the juice.compact system property to 'true' keeps each plant's oranges in a
+ * compact OrangeStore rather than as Orange objects.
  *
  * @author Nate Williams
  */
 public class PlantCreator {
     public static final long PROCESSING_TIME = 5 * 1000;
+    public static final long STOP_TIMEOUT = 1000;
+    public static final int TARGET_FETCHED_DEPTH = 3;
 
     private static final int NUM_PLANTS = 3;
+    private static final int COMPACT_CAPACITY = 1 << 16;
 
     public static void main(String[] args) {
+        AdmissionController.ShedPolicy shedPolicy = getShedPolicy(System.getProperty("juice.admission", "defer"));
+        String load = System.getProperty("juice.load");
+        ArrivalSchedule schedule = load != null ? ArrivalSchedule.parse(load) : null;
+        boolean compact = Boolean.getBoolean("juice.compact");
+
         // Startup the plants
         Plant[] plants = new Plant[NUM_PLANTS];
         for (int i = 0; i < NUM_PLANTS; i++) {
-            plants[i] = new Plant(i);
+            AdmissionController admission = null;
+            if (shedPolicy != null) {
+                admission = new AdmissionController(TARGET_FETCHED_DEPTH, shedPolicy);
+            }
+            OrangeStore store = compact ? new OrangeStore(COMPACT_CAPACITY) : null;
+            plants[i] = new Plant(i, admission, schedule, store);
             plants[i].startPlant();
         }
-        System.out.println("Processing Oranges...\n");
+        if (load != null) {
+            System.out.println("Processing Oranges (open-loop load: " + load + ")...\n");
+        } else {
+            System.out.println("Processing Oranges (admission control: " + (shedPolicy == null ? "off" : shedPolicy) + ")...\n");
+        }
 
         // Give the plants time to do work
         delay(PROCESSING_TIME, "Plant malfunction");
 
-        // Stop the plant, and wait for it to shut down
+        // Stop the plants immediately, and wait for them to shut down
+        // Clear every work flag first, so idle workers leave before the interrupts wake the rest
+        long stopStart = System.nanoTime();
         for (Plant p : plants) {
             p.stopPlant();
         }
         for (Plant p : plants) {
-            p.waitToStop();
+            p.stopPlantNow();
+        }
+        // Every plant shares one deadline, so stopping takes at most STOP_TIMEOUT however many plants there are
+        long stopDeadline = stopStart + STOP_TIMEOUT * 1_000_000;
+        for (Plant p : plants) {
+            long remaining = Math.max(0, (stopDeadline - System.nanoTime()) / 1_000_000);
+            if (!p.waitToStop(remaining)) {
+                System.err.println("Plant #" + (p.getPlantNum() + 1) + " did not stop within " + STOP_TIMEOUT + " ms");
+            }
+        }
+        double stopMillis = (System.nanoTime() - stopStart) / 1_000_000.0;
+        for (Plant p : plants) {
+            if (p.getLatencyRecorder() != null) {
+                p.getLatencyRecorder().stopped(p.getStopTime());
+            }
         }
 
         // Summarize the results
@@ -36,22 +73,67 @@ public class PlantCreator {
         int totalProcessed = 0;
         int totalBottles = 0;
         int totalWasted = 0;
+        int totalShed = 0;
         for (Plant p : plants) {
             totalProvided += p.getProvidedOranges();
             totalProcessed += p.getProcessedOranges();
             totalBottles += p.getBottles();
             totalWasted += p.getWaste();
+            totalShed += p.getShedOranges();
 
             System.out.println("Plant #" + (p.getPlantNum() + 1) + "\n------------");
-            System.out.println("Fetched Size: " + p.getFetchedOranges().size());
-            System.out.println("Peeled Size: " + p.getPeeledOranges().size());
-            System.out.println("Squeezed Size: " + p.getSqueezedOranges().size());
-            System.out.println("Bottled Size: " + p.getBottledOranges().size());
+            if (p.getOrangeStore() != null) {
+                System.out.println("Fetched Size: " + p.getFetchedIds().size());
+                System.out.println("Peeled Size: " + p.getPeeledIds().size());
+                System.out.println("Squeezed Size: " + p.getSqueezedIds().size());
+                System.out.println("Bottled Size: " + p.getBottledIds().size());
+            } else {
+                System.out.println("Fetched Size: " + p.getFetchedOranges().size());
+                System.out.println("Peeled Size: " + p.getPeeledOranges().size());
+                System.out.println("Squeezed Size: " + p.getSqueezedOranges().size());
+                System.out.println("Bottled Size: " + p.getBottledOranges().size());
+            }
             System.out.println("Processed Size: " + p.getProcessedOranges());
+            System.out.println("Shed: " + p.getShedOranges());
+            if (p.getAdmissionController() != null) {
+                System.out.println("Admission Window: " + p.getAdmissionController().getWindow());
+            }
+            if (p.getLatencyRecorder() != null) {
+                System.out.println("Latency: " + p.getLatencyRecorder());
+            }
             System.out.println(" ");
         }
         System.out.println("Total provided/processed = " + totalProvided + "/" + totalProcessed);
-        System.out.println("Created " + totalBottles + " bottles, Wasted " + totalWasted + " oranges");
+        System.out.println("Created " + totalBottles + " bottles, Wasted " + totalWasted + " oranges, Shed " + totalShed + " oranges");
+        System.out.printf("Throughput: %.1f oranges/s, Heap used: %.1f MB%n",
+                totalProcessed * 1000.0 / PROCESSING_TIME, usedHeap() / (1024.0 * 1024.0));
+        System.out.printf("Stopped %d plants in %.2f ms%n", plants.length, stopMillis);
+    }
+
+    /**
+     * Converts the value of the juice.admission system property into a shed policy.
+     *
+     * @param setting String  'defer', 'drop', or 'off'
+     * @return AdmissionController.ShedPolicy policy for shed oranges, or null if admission control is off
+     */
+    private static AdmissionController.ShedPolicy getShedPolicy(String setting) {
+        return switch (setting.toLowerCase()) {
+            case "off" -> null;
+            case "defer" -> AdmissionController.ShedPolicy.Defer;
+            case "drop" -> AdmissionController.ShedPolicy.Drop;
+            default -> throw new IllegalArgumentException("Unknown admission setting: " + setting);
+        };
+    }
+
+    /**
+     * Returns the number of bytes in use on the heap after requesting garbage collection.
+     *
+     * @return long  number of bytes in use on the heap
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
     }
 
     /**
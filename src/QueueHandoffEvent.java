@@ -0,0 +1,31 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event covering an orange being added to or removed from a shared list, including any wait for another
+ * thread using the list, along with the number of oranges left in the list afterwards. Only handoffs that stall are
+ * recorded by default.
+ */
+@Name("juicebottler.QueueHandoff")
+@Label("Orange Queue Handoff")
+@Description("Orange added to or removed from a shared list")
+@Category({"Juice Bottler", "Queue"})
+@Enabled(true)
+@Threshold("1 ms")
+@StackTrace(false)
+public class QueueHandoffEvent extends Event {
+    @Label("Queue")
+    String queue;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Depth")
+    int depth;
+}
@@ -0,0 +1,26 @@
+/**
+ * Orange delivered to a plant under open-loop load. Along with its state, it holds the time it was meant to arrive, so
+ * that its latency can be measured from that time rather than from when the plant got around to taking it.
+ */
+public class ScheduledOrange extends Orange {
+    private final long arrivalTime;
+
+    /**
+     * Constructor for a ScheduledOrange object. The orange arrives already fetched, so no work is simulated.
+     *
+     * @param arrivalTime long  value of System.nanoTime() when the orange was meant to arrive
+     */
+    public ScheduledOrange(long arrivalTime) {
+        super(State.Fetched);
+        this.arrivalTime = arrivalTime;
+    }
+
+    /**
+     * Returns the time the orange was meant to arrive at the plant.
+     *
+     * @return long  value of System.nanoTime() when the orange was meant to arrive
+     */
+    public long getArrivalTime() {
+        return arrivalTime;
+    }
+}
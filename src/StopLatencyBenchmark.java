@@ -0,0 +1,72 @@
+/**
+ * Measures how long it takes to stop a large number of running plants. The plants are either stopped gracefully
+ * (clearing the work flag and joining each worker in turn) or immediately (interrupting the workers and joining every
+ * plant's workers against one shared deadline). Each run measures a single stop method, since starting a second set of
+ * plants in the same JVM is slowed by the workers of the first. The number of plants and the stop method ('graceful' or
+ * 'immediate') may be given as the first and second arguments.
+ */
+public class StopLatencyBenchmark {
+    private static final int DEFAULT_NUM_PLANTS = 100;
+    private static final long RUN_TIME = 1000;
+
+    public static void main(String[] args) {
+        int numPlants = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUM_PLANTS;
+        String method = args.length > 1 ? args[1] : "immediate";
+
+        Plant[] plants = startPlants(numPlants);
+        long start = System.nanoTime();
+        switch (method) {
+            case "graceful" -> {
+                for (Plant p : plants) {
+                    p.stopPlant();
+                }
+                for (Plant p : plants) {
+                    p.waitToStop();
+                }
+            }
+            case "immediate" -> {
+                // Clear every work flag first, so idle workers leave before the interrupts wake the rest
+                for (Plant p : plants) {
+                    p.stopPlant();
+                }
+                for (Plant p : plants) {
+                    p.stopPlantNow();
+                }
+                long deadline = start + PlantCreator.STOP_TIMEOUT * 1_000_000;
+                for (Plant p : plants) {
+                    long remaining = Math.max(0, (deadline - System.nanoTime()) / 1_000_000);
+                    if (!p.waitToStop(remaining)) {
+                        System.err.println("Plant #" + (p.getPlantNum() + 1) + " did not stop within "
+                                + PlantCreator.STOP_TIMEOUT + " ms");
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown stop method: " + method);
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%s stop: %d plants in %.2f ms (%.3f ms/plant)%n",
+                method, numPlants, nanos / 1_000_000.0, nanos / 1_000_000.0 / numPlants);
+    }
+
+    /**
+     * Creates and starts the given number of plants, then gives them time to fill their lists.
+     *
+     * @param numPlants int  number of plants to start
+     * @return Plant[] the running plants
+     */
+    private static Plant[] startPlants(int numPlants) {
+        Plant[] plants = new Plant[numPlants];
+        for (int i = 0; i < numPlants; i++) {
+            AdmissionController admission =
+                    new AdmissionController(PlantCreator.TARGET_FETCHED_DEPTH, AdmissionController.ShedPolicy.Defer);
+            plants[i] = new Plant(i, admission);
+            plants[i].startPlant();
+        }
+        try {
+            Thread.sleep(RUN_TIME);
+        } catch (InterruptedException e) {
+            System.err.println("Benchmark interrupted");
+        }
+        return plants;
+    }
+}
@@ -1,3 +1,5 @@
+import java.util.function.IntSupplier;
+
 /**
  * Represents a worker at an orange-processing plant. This worker could have one of five different tasks: fetcher, peeler,
  * squeezer, bottler, or processor.
@@ -5,6 +7,8 @@
  * @author Ryan Johnson
  */
 public class Worker implements Runnable {
+    private static final long MAX_ARRIVAL_WAIT = 100_000_000;
+
     private final Thread thread;
     private final Plant parentPlant;
     private final String job;
@@ -26,25 +30,46 @@ public class Worker implements Runnable {
     }
 
     /**
-     * Run once the thread is started. Moves to a different method depending upon the task the worker is assigned.
+     * Run once the thread is started. Moves to a different method depending upon the task the worker is assigned. The
+     * worker stops early if its thread is interrupted, abandoning any orange it was working on.
      */
     public void run() {
-        switch (job) {
-            case "fetch" -> runFetcher();
-            case "peel" -> runPeeler();
-            case "squeeze" -> runSqueezer();
-            case "bottle" -> runBottler();
-            case "process" -> runProcessor();
+        if (parentPlant.getOrangeStore() != null) {
+            runCompact();
+            return;
+        }
+        try {
+            switch (job) {
+                case "fetch" -> runFetcher();
+                case "peel" -> runPeeler();
+                case "squeeze" -> runSqueezer();
+                case "bottle" -> runBottler();
+                case "process" -> runProcessor();
+            }
+        } catch (InterruptedException e) {
+            // The plant is stopping immediately, so there is nothing left to do
         }
     }
 
     /**
      * Only used by fetcher workers. Fetches a new orange and adds it to its plant's shared list of fetched oranges,
-     * before incrementing the shared number of oranges provided to the plant.
+     * before incrementing the shared number of oranges provided to the plant. If the plant has an admission controller,
+     * oranges it does not admit are shed instead. If the plant has an arrival schedule, oranges are delivered on that
+     * schedule instead.
+     *
+     * @throws InterruptedException if the worker's thread is interrupted
      */
-    public void runFetcher() {
+    public void runFetcher() throws InterruptedException {
+        if (parentPlant.getArrivalSchedule() != null) {
+            runArrivals();
+            return;
+        }
         while (parentPlant.isTimeToWork()) {
-            parentPlant.getFetchedListLock().acquire();
+            if (!admit(parentPlant.getFetchedOranges().size())) {
+                continue;
+            }
+
+            parentPlant.getFetchedListLock().acquireInterruptibly();
             try {
                 BlockingList orangesList = parentPlant.getFetchedOranges();
                 orangesList.add(new Orange());
@@ -63,14 +88,121 @@ public class Worker implements Runnable {
         }
     }
 
+    /**
+     * Only used by fetcher workers. Delivers already-fetched oranges to the plant's shared list of fetched oranges on the
+     * plant's arrival schedule, stamping each with the time it was meant to arrive. If the fetcher falls behind, it
+     * delivers the late oranges back to back rather than pushing the schedule back. Oranges that were due before the
+     * plant stopped but never delivered are still noted as arrived, so their latencies are not lost.
+     *
+     * @throws InterruptedException if the worker's thread is interrupted
+     */
+    private void runArrivals() throws InterruptedException {
+        ArrivalSchedule schedule = parentPlant.getArrivalSchedule();
+        LatencyRecorder latencyRecorder = parentPlant.getLatencyRecorder();
+        long start = System.nanoTime();
+        long nextArrival = 0;
+        try {
+            while (parentPlant.isTimeToWork()) {
+                long wait = nextArrival - (System.nanoTime() - start);
+                if (wait > 0) {
+                    // Sleep in short steps so that a stop is noticed before a distant arrival
+                    wait = Math.min(wait, MAX_ARRIVAL_WAIT);
+                    Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                    continue;
+                }
+
+                long arrivalTime = start + nextArrival;
+                nextArrival = schedule.nextArrival(nextArrival);
+                latencyRecorder.arrived(arrivalTime);
+
+                parentPlant.getFetchedListLock().acquireInterruptibly();
+                try {
+                    BlockingList orangesList = parentPlant.getFetchedOranges();
+                    orangesList.add(new ScheduledOrange(arrivalTime));
+                    parentPlant.setFetchedOranges(orangesList);
+                } finally {
+                    parentPlant.getFetchedListLock().release();
+                }
+
+                parentPlant.getOrangesProvidedLock().acquire();
+                try {
+                    int providedOranges = parentPlant.getProvidedOranges();
+                    parentPlant.setProvidedOranges(++providedOranges);
+                } finally {
+                    parentPlant.getOrangesProvidedLock().release();
+                }
+            }
+        } finally {
+            long stopped = parentPlant.getStopTime() - start;
+            while (nextArrival <= stopped) {
+                latencyRecorder.arrived(start + nextArrival);
+                nextArrival = schedule.nextArrival(nextArrival);
+            }
+        }
+    }
+
+    /**
+     * Only used by fetcher workers. Asks the plant's admission controller, if it has one, whether another orange may be
+     * fetched, and sheds the orange if not.
+     *
+     * @param fetchedDepth int  number of oranges waiting in the plant's fetched list
+     * @return boolean whether the orange was admitted (true if it may be fetched; false if it was shed)
+     * @throws InterruptedException if the worker's thread is interrupted
+     */
+    private boolean admit(int fetchedDepth) throws InterruptedException {
+        AdmissionController admission = parentPlant.getAdmissionController();
+        if (admission == null) {
+            return true;
+        }
+        int inFlight = parentPlant.getProvidedOranges() - parentPlant.getProcessedOranges();
+        if (admission.tryAdmit(fetchedDepth, inFlight)) {
+            return true;
+        }
+        shed(admission.getShedPolicy());
+        return false;
+    }
+
+    /**
+     * Only used by fetcher workers. Handles an orange that the admission controller did not admit into the plant, and
+     * increments the shared number of oranges shed by the plant.
+     *
+     * @param policy ShedPolicy  what to do with the orange
+     * @throws InterruptedException if the worker's thread is interrupted
+     */
+    private void shed(AdmissionController.ShedPolicy policy) throws InterruptedException {
+        switch (policy) {
+            case Defer -> {
+                // Give the peelers the time it would have taken to fetch the orange
+                Thread.sleep(Orange.State.Fetched.timeToComplete);
+            }
+            case Drop -> {
+                new Orange();
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+
+        parentPlant.getOrangesShedLock().acquire();
+        try {
+            int shedOranges = parentPlant.getShedOranges();
+            parentPlant.setShedOranges(++shedOranges);
+        } finally {
+            parentPlant.getOrangesShedLock().release();
+        }
+    }
+
     /**
      * Only used by peeler workers. Peels the next orange in the shared list of fetched oranges and adds it to its
      * plant's shared list of peeled oranges.
+     *
+     * @throws InterruptedException if the worker's thread is interrupted
      */
-    public void runPeeler() {
+    public void runPeeler() throws InterruptedException {
         while (parentPlant.isTimeToWork()) {
-            parentPlant.getFetchedListLock().acquire();
+            parentPlant.getFetchedListLock().acquireInterruptibly();
             try {
+                awaitOranges(parentPlant.getFetchedListLock(), () -> parentPlant.getFetchedOranges().size());
                 BlockingList fetchedOranges = parentPlant.getFetchedOranges();
                 if (fetchedOranges.size() > 0) {
                     Orange o = fetchedOranges.remove();
@@ -78,7 +210,7 @@ public class Worker implements Runnable {
 
                     o.runProcess();
 
-                    parentPlant.getPeeledListLock().acquire();
+                    parentPlant.getPeeledListLock().acquireInterruptibly();
                     try {
                         BlockingList peeledOranges = parentPlant.getPeeledOranges();
                         peeledOranges.add(o);
@@ -96,11 +228,14 @@ public class Worker implements Runnable {
     /**
      * Only used by squeezer workers. Squeezes the next orange in the shared list of peeled oranges and adds it to its
      * plant's shared list of squeezed oranges.
+     *
+     * @throws InterruptedException if the worker's thread is interrupted
      */
-    public void runSqueezer() {
+    public void runSqueezer() throws InterruptedException {
         while (parentPlant.isTimeToWork()) {
-            parentPlant.getPeeledListLock().acquire();
+            parentPlant.getPeeledListLock().acquireInterruptibly();
             try {
+                awaitOranges(parentPlant.getPeeledListLock(), () -> parentPlant.getPeeledOranges().size());
                 BlockingList peeledOranges = parentPlant.getPeeledOranges();
                 if (peeledOranges.size() > 0) {
                     Orange o = peeledOranges.remove();
@@ -108,7 +243,7 @@ public class Worker implements Runnable {
 
                     o.runProcess();
 
-                    parentPlant.getSqueezedListLock().acquire();
+                    parentPlant.getSqueezedListLock().acquireInterruptibly();
                     try {
                         BlockingList squeezedOranges = parentPlant.getSqueezedOranges();
                         squeezedOranges.add(o);
@@ -126,11 +261,14 @@ public class Worker implements Runnable {
     /**
      * Only used by bottler workers. Bottles the next orange in the shared list of squeezed oranges and adds it to its
      * plant's shared list of bottled oranges.
+     *
+     * @throws InterruptedException if the worker's thread is interrupted
      */
-    public void runBottler() {
+    public void runBottler() throws InterruptedException {
         while (parentPlant.isTimeToWork()) {
-            parentPlant.getSqueezedListLock().acquire();
+            parentPlant.getSqueezedListLock().acquireInterruptibly();
             try {
+                awaitOranges(parentPlant.getSqueezedListLock(), () -> parentPlant.getSqueezedOranges().size());
                 BlockingList squeezedOranges = parentPlant.getSqueezedOranges();
                 if (squeezedOranges.size() > 0) {
                     Orange o = squeezedOranges.remove();
@@ -138,7 +276,7 @@ public class Worker implements Runnable {
 
                     o.runProcess();
 
-                    parentPlant.getBottledListLock().acquire();
+                    parentPlant.getBottledListLock().acquireInterruptibly();
                     try {
                         BlockingList bottledOranges = parentPlant.getBottledOranges();
                         bottledOranges.add(o);
@@ -155,12 +293,15 @@ public class Worker implements Runnable {
 
     /**
      * Only used by processor workers. Processes the next orange in the shared list of bottled oranges and increments
-     * the shared number of processed oranges.
+     * the shared number of processed oranges. Under open-loop load, the orange's latency is recorded as well.
+     *
+     * @throws InterruptedException if the worker's thread is interrupted
      */
-    public void runProcessor() {
+    public void runProcessor() throws InterruptedException {
         while (parentPlant.isTimeToWork()) {
-            parentPlant.getBottledListLock().acquire();
+            parentPlant.getBottledListLock().acquireInterruptibly();
             try {
+                awaitOranges(parentPlant.getBottledListLock(), () -> parentPlant.getBottledOranges().size());
                 BlockingList bottledOranges = parentPlant.getBottledOranges();
                 if (bottledOranges.size() > 0) {
                     Orange o = bottledOranges.remove();
@@ -168,6 +309,142 @@ public class Worker implements Runnable {
 
                     o.runProcess();
 
+                    LatencyRecorder latencyRecorder = parentPlant.getLatencyRecorder();
+                    if (latencyRecorder != null && o instanceof ScheduledOrange) {
+                        latencyRecorder.finished(((ScheduledOrange) o).getArrivalTime(), System.nanoTime());
+                    }
+
+                    parentPlant.getOrangesProcessedLock().acquire();
+                    try {
+                        int orangesProcessed = parentPlant.getProcessedOranges();
+                        orangesProcessed++;
+                        parentPlant.setProcessedOranges(orangesProcessed);
+                    } finally {
+                        parentPlant.getOrangesProcessedLock().release();
+                    }
+                }
+            } finally {
+                parentPlant.getBottledListLock().release();
+            }
+        }
+    }
+
+    /**
+     * Run in place of the other run methods when the plant keeps its oranges in a compact store. Moves to a different
+     * method depending upon the task the worker is assigned, passing orange IDs between the plant's ID lists.
+     */
+    private void runCompact() {
+        try {
+            switch (job) {
+                case "fetch" -> runCompactFetcher();
+                case "peel" -> runCompactStage(parentPlant.getFetchedIds(), parentPlant.getFetchedListLock(),
+                        parentPlant.getPeeledIds(), parentPlant.getPeeledListLock());
+                case "squeeze" -> runCompactStage(parentPlant.getPeeledIds(), parentPlant.getPeeledListLock(),
+                        parentPlant.getSqueezedIds(), parentPlant.getSqueezedListLock());
+                case "bottle" -> runCompactStage(parentPlant.getSqueezedIds(), parentPlant.getSqueezedListLock(),
+                        parentPlant.getBottledIds(), parentPlant.getBottledListLock());
+                case "process" -> runCompactProcessor();
+            }
+        } catch (InterruptedException e) {
+            // The plant is stopping immediately, so there is nothing left to do
+        }
+    }
+
+    /**
+     * Only used by fetcher workers with a compact store. Fetches a new orange into the plant's store and adds its ID to
+     * the plant's shared list of fetched IDs, before incrementing the shared number of oranges provided to the plant. If
+     * the store is full, the fetcher waits for space instead.
+     *
+     * @throws InterruptedException if the worker's thread is interrupted
+     */
+    private void runCompactFetcher() throws InterruptedException {
+        OrangeStore store = parentPlant.getOrangeStore();
+        while (parentPlant.isTimeToWork()) {
+            if (!admit(parentPlant.getFetchedIds().size())) {
+                continue;
+            }
+
+            // Fetch the orange while holding the list's lock, just as runFetcher does
+            int id;
+            parentPlant.getFetchedListLock().acquireInterruptibly();
+            try {
+                id = store.fetch();
+                if (id != OrangeStore.NO_ORANGE) {
+                    parentPlant.getFetchedIds().add(id);
+                }
+            } finally {
+                parentPlant.getFetchedListLock().release();
+            }
+            if (id == OrangeStore.NO_ORANGE) {
+                // Give the rest of the plant the time it would have taken to fetch the orange
+                Thread.sleep(Orange.State.Fetched.timeToComplete);
+                continue;
+            }
+
+            parentPlant.getOrangesProvidedLock().acquire();
+            try {
+                int providedOranges = parentPlant.getProvidedOranges();
+                parentPlant.setProvidedOranges(++providedOranges);
+            } finally {
+                parentPlant.getOrangesProvidedLock().release();
+            }
+        }
+    }
+
+    /**
+     * Only used by peeler, squeezer, and bottler workers with a compact store. Moves the next orange in one shared list of
+     * IDs to its next state and adds its ID to the next shared list.
+     *
+     * @param fromIds  IdBlockingList  list the orange's ID is taken from
+     * @param fromLock Mutex           lock for the list the orange's ID is taken from
+     * @param toIds    IdBlockingList  list the orange's ID is added to
+     * @param toLock   Mutex           lock for the list the orange's ID is added to
+     * @throws InterruptedException if the worker's thread is interrupted
+     */
+    private void runCompactStage(IdBlockingList fromIds, Mutex fromLock, IdBlockingList toIds, Mutex toLock)
+            throws InterruptedException {
+        OrangeStore store = parentPlant.getOrangeStore();
+        while (parentPlant.isTimeToWork()) {
+            fromLock.acquireInterruptibly();
+            try {
+                awaitOranges(fromLock, fromIds::size);
+                if (fromIds.size() > 0) {
+                    int id = fromIds.remove();
+
+                    store.runProcess(id);
+
+                    toLock.acquireInterruptibly();
+                    try {
+                        toIds.add(id);
+                    } finally {
+                        toLock.release();
+                    }
+                }
+            } finally {
+                fromLock.release();
+            }
+        }
+    }
+
+    /**
+     * Only used by processor workers with a compact store. Processes the next orange in the shared list of bottled IDs,
+     * removes it from the plant's store, and increments the shared number of processed oranges.
+     *
+     * @throws InterruptedException if the worker's thread is interrupted
+     */
+    private void runCompactProcessor() throws InterruptedException {
+        OrangeStore store = parentPlant.getOrangeStore();
+        while (parentPlant.isTimeToWork()) {
+            parentPlant.getBottledListLock().acquireInterruptibly();
+            try {
+                IdBlockingList bottledIds = parentPlant.getBottledIds();
+                awaitOranges(parentPlant.getBottledListLock(), bottledIds::size);
+                if (bottledIds.size() > 0) {
+                    int id = bottledIds.remove();
+
+                    store.runProcess(id);
+                    store.release(id);
+
                     parentPlant.getOrangesProcessedLock().acquire();
                     try {
                         int orangesProcessed = parentPlant.getProcessedOranges();
@@ -183,6 +460,18 @@ public class Worker implements Runnable {
         }
     }
 
+    /**
+     * Waits, while holding a list's lock, until the list has an orange in it or the plant is stopping. The lock is
+     * released while waiting, so idle workers sleep until an orange is added rather than repeatedly checking the list.
+     *
+     * @param listLock Mutex        lock for the list, held by the worker
+     * @param size     IntSupplier  number of oranges in the list
+     * @throws InterruptedException if the worker's thread is interrupted
+     */
+    private void awaitOranges(Mutex listLock, IntSupplier size) throws InterruptedException {
+        listLock.await(() -> size.getAsInt() > 0 || !parentPlant.isTimeToWork());
+    }
+
     /**
      * Returns the thread being used to run the worker tasks.
      *